@@ -3,10 +3,13 @@ package com.example.kafka.config;
 import com.example.kafka.avro.Order;
 import com.example.kafka.serializer.AvroDeserializer;
 import com.example.kafka.serializer.AvroSerializer;
+import com.example.kafka.service.OrderStatsService;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,7 +19,9 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -34,6 +39,9 @@ public class KafkaConfig {
     @Value("${kafka.topics.orders-dlq}")
     private String ordersDlqTopic;
 
+    @Value("${kafka.topics.orders-dlq-replayed}")
+    private String ordersDlqReplayedTopic;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
@@ -65,6 +73,16 @@ public class KafkaConfig {
                 .build();
     }
 
+    @Bean
+    public NewTopic ordersDlqReplayedTopic() {
+        // One record per replayed DLQ position, so compaction keeps exactly the replay progress
+        return TopicBuilder.name(ordersDlqReplayedTopic)
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
     @Bean
     public ProducerFactory<String, Order> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -91,9 +109,36 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Order> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Order> kafkaListenerContainerFactory(OrderStatsService statsService) {
         ConcurrentKafkaListenerContainerFactory<String, Order> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setConsumerRebalanceListener(statsShardListener(statsService));
         return factory;
     }
+
+    private ConsumerRebalanceListener statsShardListener(OrderStatsService statsService) {
+        // Only partitions that feed the stats get a shard; the DLQ listener shares this factory
+        return new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                statsService.assignPartitions(statsPartitions(partitions));
+            }
+
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                statsService.revokePartitions(statsPartitions(partitions));
+            }
+
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                statsService.losePartitions(statsPartitions(partitions));
+            }
+        };
+    }
+
+    private List<TopicPartition> statsPartitions(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+                .filter(tp -> tp.topic().equals(ordersTopic) || tp.topic().equals(ordersRetryTopic))
+                .toList();
+    }
 }
@@ -0,0 +1,24 @@
+package com.example.kafka.consumer;
+
+import com.example.kafka.avro.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class FailureSimulator {
+
+    private final double failureRate;
+
+    public FailureSimulator(@Value("${kafka.simulation.failure-rate:0.1}") double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Decides whether processing of the given attempt (0 = first delivery) should fail.
+     */
+    public boolean shouldFail(Order order, int retryAttempt) {
+        return ThreadLocalRandom.current().nextDouble() < failureRate;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.kafka.consumer;
 
 import com.example.kafka.avro.Order;
+import com.example.kafka.service.DlqReplayService;
+import com.example.kafka.service.OrderDeduplicator;
 import com.example.kafka.service.OrderStatsService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.header.Header;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -14,29 +17,37 @@ import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.Random;
 
 @Service
 @Slf4j
 public class OrderConsumer {
 
+    public static final String DLQ_REASON_HEADER = "dlq-reason";
+
     private final OrderStatsService statsService;
+    private final OrderDeduplicator deduplicator;
     private final KafkaTemplate<String, Order> kafkaTemplate;
     private final String ordersRetryTopic;
     private final String ordersDlqTopic;
     private final int maxRetryAttempts;
-    private final Random random = new Random();
+    private final FailureSimulator failureSimulator;
+    // Last partition seen by each listener thread; records arrive in per-partition batches
+    private final ThreadLocal<TopicPartition> lastPartition = new ThreadLocal<>();
 
     public OrderConsumer(OrderStatsService statsService,
+                        OrderDeduplicator deduplicator,
                         KafkaTemplate<String, Order> kafkaTemplate,
                         @Value("${kafka.topics.orders-retry}") String ordersRetryTopic,
                         @Value("${kafka.topics.orders-dlq}") String ordersDlqTopic,
-                        @Value("${kafka.retry.max-attempts}") int maxRetryAttempts) {
+                        @Value("${kafka.retry.max-attempts}") int maxRetryAttempts,
+                        FailureSimulator failureSimulator) {
         this.statsService = statsService;
+        this.deduplicator = deduplicator;
         this.kafkaTemplate = kafkaTemplate;
         this.ordersRetryTopic = ordersRetryTopic;
         this.ordersDlqTopic = ordersDlqTopic;
         this.maxRetryAttempts = maxRetryAttempts;
+        this.failureSimulator = failureSimulator;
     }
 
     @KafkaListener(topics = "${kafka.topics.orders}", groupId = "${spring.kafka.consumer.group-id}")
@@ -52,25 +63,43 @@ public class OrderConsumer {
 
     private void processOrder(ConsumerRecord<String, Order> record, int retryAttempt) {
         Order order = record.value();
-        log.info("Processing order: {} (attempt {})", order.getOrderId(), retryAttempt + 1);
+        TopicPartition partition = partitionOf(record);
+        if (log.isDebugEnabled()) {
+            log.debug("Processing order: {} (attempt {})", order.getOrderId(), retryAttempt + 1);
+        }
+        Header replaySource = record.headers().lastHeader(DlqReplayService.REPLAY_SOURCE_HEADER);
+        if (replaySource != null) {
+            log.info("Processing order {} replayed from {}", order.getOrderId(),
+                    new String(replaySource.value(), StandardCharsets.UTF_8));
+        }
+
+        // Skip redelivered orders before any processing, so they cannot fail, retry or reach the DLQ again
+        if (!deduplicator.markIfFirst(order.getOrderId())) {
+            log.info("Skipping duplicate order: {}", order.getOrderId());
+            return;
+        }
 
         try {
-            // Simulate random processing failures (10% chance)
-            if (random.nextInt(10) == 0) {
+            // Simulate random processing failures (10% chance by default)
+            if (failureSimulator.shouldFail(order, retryAttempt)) {
                 throw new RuntimeException("Simulated temporary failure");
             }
 
             // Process the order successfully
-            statsService.recordOrder(order);
-            log.info("Successfully processed order: {}", order.getOrderId());
+            statsService.recordOrder(partition, order);
+            if (log.isDebugEnabled()) {
+                log.debug("Successfully processed order: {}", order.getOrderId());
+            }
 
         } catch (Exception e) {
+            // Not counted, so the retry of this order must not be taken for a duplicate
+            deduplicator.forget(order.getOrderId());
             log.error("Failed to process order: {} (attempt {})", order.getOrderId(), retryAttempt + 1, e);
-            handleFailure(order, retryAttempt, e);
+            handleFailure(partition, order, retryAttempt, e);
         }
     }
 
-    private void handleFailure(Order order, int retryAttempt, Exception e) {
+    private void handleFailure(TopicPartition partition, Order order, int retryAttempt, Exception e) {
         if (retryAttempt < maxRetryAttempts) {
             // Send to retry topic with incremented attempt counter
             int nextAttempt = retryAttempt + 1;
@@ -83,30 +112,49 @@ public class OrderConsumer {
                     order.getOrderId().toString(),
                     order
                 );
-            producerRecord.headers().add("retry-attempt", String.valueOf(nextAttempt).getBytes(StandardCharsets.UTF_8));
+            producerRecord.headers().add(RetryAttemptHeader.NAME, RetryAttemptHeader.encode(nextAttempt));
             
             kafkaTemplate.send(producerRecord)
                     .whenComplete((result, ex) -> {
                         if (ex == null) {
-                            statsService.recordRetry();
+                            statsService.recordRetry(partition);
                         }
                     });
         } else {
             // Send to DLQ after max retries
             log.error("Max retry attempts reached for order {}. Sending to DLQ", order.getOrderId());
-            kafkaTemplate.send(ordersDlqTopic, order.getOrderId().toString(), order);
-            statsService.recordDlq(order, "Max retries exceeded: " + e.getMessage());
+            String reason = "Max retries exceeded: " + e.getMessage();
+            org.apache.kafka.clients.producer.ProducerRecord<String, Order> dlqRecord =
+                new org.apache.kafka.clients.producer.ProducerRecord<>(
+                    ordersDlqTopic,
+                    order.getOrderId().toString(),
+                    order
+                );
+            dlqRecord.headers().add(DLQ_REASON_HEADER, reason.getBytes(StandardCharsets.UTF_8));
+
+            kafkaTemplate.send(dlqRecord);
+            statsService.recordDlq(partition, order, reason);
         }
     }
 
     private int getRetryAttempt(ConsumerRecord<String, Order> record) {
-        Header retryHeader = record.headers().lastHeader("retry-attempt");
+        Header retryHeader = record.headers().lastHeader(RetryAttemptHeader.NAME);
         if (retryHeader != null) {
-            return Integer.parseInt(new String(retryHeader.value(), StandardCharsets.UTF_8));
+            return RetryAttemptHeader.decode(retryHeader.value());
         }
         return 0;
     }
 
+    private TopicPartition partitionOf(ConsumerRecord<String, Order> record) {
+        TopicPartition partition = lastPartition.get();
+        if (partition == null || partition.partition() != record.partition()
+                || !partition.topic().equals(record.topic())) {
+            partition = new TopicPartition(record.topic(), record.partition());
+            lastPartition.set(partition);
+        }
+        return partition;
+    }
+
     @KafkaListener(topics = "${kafka.topics.orders-dlq}", groupId = "${spring.kafka.consumer.group-id}-dlq")
     public void consumeDlqOrder(ConsumerRecord<String, Order> record) {
         Order order = record.value();
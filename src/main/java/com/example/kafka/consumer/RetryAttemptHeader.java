@@ -0,0 +1,47 @@
+package com.example.kafka.consumer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec for the {@code retry-attempt} header. The wire format stays ASCII decimal, but small
+ * values are encoded from shared arrays and decoding reads the digits directly, so neither
+ * direction creates a String.
+ */
+final class RetryAttemptHeader {
+
+    static final String NAME = "retry-attempt";
+
+    private static final byte[][] ENCODED = new byte[16][];
+
+    static {
+        for (int i = 0; i < ENCODED.length; i++) {
+            ENCODED[i] = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private RetryAttemptHeader() {
+    }
+
+    // Returned arrays may be shared; callers must not modify them
+    static byte[] encode(int attempt) {
+        if (attempt >= 0 && attempt < ENCODED.length) {
+            return ENCODED[attempt];
+        }
+        return Integer.toString(attempt).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static int decode(byte[] value) {
+        if (value.length == 0 || value.length > 9) {
+            throw new NumberFormatException("Invalid " + NAME + " header of " + value.length + " bytes");
+        }
+        int attempt = 0;
+        for (byte b : value) {
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid " + NAME + " header");
+            }
+            attempt = attempt * 10 + digit;
+        }
+        return attempt;
+    }
+}
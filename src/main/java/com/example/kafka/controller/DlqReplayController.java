@@ -0,0 +1,45 @@
+package com.example.kafka.controller;
+
+import com.example.kafka.model.DlqReplayRequest;
+import com.example.kafka.model.DlqReplayStatus;
+import com.example.kafka.service.DlqReplayService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dlq/replay")
+@CrossOrigin(origins = "*")
+@Slf4j
+public class DlqReplayController {
+
+    private final DlqReplayService replayService;
+
+    public DlqReplayController(DlqReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    @PostMapping
+    public ResponseEntity<DlqReplayStatus> startReplay(@RequestBody(required = false) DlqReplayRequest request) {
+        try {
+            return ResponseEntity.ok(replayService.startReplay(request != null ? request : new DlqReplayRequest()));
+        } catch (IllegalStateException e) {
+            log.warn("Rejected DLQ replay: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid DLQ replay request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<DlqReplayStatus> getStatus() {
+        return ResponseEntity.of(replayService.getStatus());
+    }
+
+    @PostMapping("/cancel")
+    public ResponseEntity<DlqReplayStatus> cancelReplay() {
+        return ResponseEntity.of(replayService.cancelReplay());
+    }
+}
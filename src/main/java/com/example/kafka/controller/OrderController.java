@@ -1,9 +1,12 @@
 package com.example.kafka.controller;
 
 import com.example.kafka.avro.Order;
+import com.example.kafka.model.DedupStats;
 import com.example.kafka.model.OrderDTO;
 import com.example.kafka.model.OrderStats;
+import com.example.kafka.model.PartitionOrderStats;
 import com.example.kafka.producer.OrderProducer;
+import com.example.kafka.service.OrderDeduplicator;
 import com.example.kafka.service.OrderStatsService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -19,10 +22,13 @@ public class OrderController {
 
     private final OrderProducer orderProducer;
     private final OrderStatsService statsService;
+    private final OrderDeduplicator deduplicator;
 
-    public OrderController(OrderProducer orderProducer, OrderStatsService statsService) {
+    public OrderController(OrderProducer orderProducer, OrderStatsService statsService,
+                           OrderDeduplicator deduplicator) {
         this.orderProducer = orderProducer;
         this.statsService = statsService;
+        this.deduplicator = deduplicator;
     }
 
     @PostMapping("/orders")
@@ -55,4 +61,19 @@ public class OrderController {
     public ResponseEntity<OrderStats> getStats() {
         return ResponseEntity.ok(statsService.getStats());
     }
+
+    @GetMapping("/stats/partitions")
+    public ResponseEntity<List<PartitionOrderStats>> getPartitionStats() {
+        return ResponseEntity.ok(statsService.getPartitionStats());
+    }
+
+    @GetMapping("/stats/dedup")
+    public ResponseEntity<DedupStats> getDedupStats() {
+        return ResponseEntity.ok(new DedupStats(
+                deduplicator.getDuplicateCount().get(),
+                deduplicator.getForcedRotations().get(),
+                deduplicator.getWindowMillis(),
+                deduplicator.getCapacity()
+        ));
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DedupStats {
+    private long duplicateCount;
+    private long forcedRotations;
+    private long windowMs;
+    private int capacity;
+}
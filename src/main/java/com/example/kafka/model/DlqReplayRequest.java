@@ -0,0 +1,25 @@
+package com.example.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DlqReplayRequest {
+    // Start offset per DLQ partition; when set, only the listed partitions are replayed
+    private Map<Integer, Long> fromOffsets;
+    // Start time for every partition; wins over fromOffsets if both are set
+    private Long fromTimestamp;
+    // The scan of each partition stops at its first record after this time
+    private Long toTimestamp;
+    // Optional filters, matched case-insensitively
+    private String product;
+    private String reason;
+    // Null falls back to kafka.replay.* defaults
+    private Integer ratePerSecond;
+    private Integer maxInFlight;
+}
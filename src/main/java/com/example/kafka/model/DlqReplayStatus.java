@@ -0,0 +1,22 @@
+package com.example.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DlqReplayStatus {
+    private String replayId;
+    private String state;
+    private long scanned;
+    private long matched;
+    private long replayed;
+    private long skipped;
+    private long failed;
+    private double throughput;
+    private long startedAt;
+    private long finishedAt;
+    private String error;
+}
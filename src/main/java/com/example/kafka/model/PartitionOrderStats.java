@@ -0,0 +1,17 @@
+package com.example.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionOrderStats {
+    private String topic;
+    private int partition;
+    private long totalOrders;
+    private double runningAverage;
+    private long retryCount;
+    private long dlqCount;
+}
@@ -0,0 +1,462 @@
+package com.example.kafka.service;
+
+import com.example.kafka.avro.Order;
+import com.example.kafka.consumer.OrderConsumer;
+import com.example.kafka.model.DlqReplayRequest;
+import com.example.kafka.model.DlqReplayStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Re-injects orders from the DLQ topic back into the orders topic.
+ *
+ * A replay reads a bounded range of the DLQ (up to the end offsets seen when it starts),
+ * filters by product and reason, and sends matches at a fixed rate with a bounded number
+ * of in-flight sends. Every DLQ record re-injected successfully is also written to a compacted
+ * progress topic keyed by its source position, so running the same replay again, even after a
+ * restart, only sends what is still missing.
+ */
+@Service
+@Slf4j
+public class DlqReplayService {
+
+    public static final String REPLAY_SOURCE_HEADER = "dlq-replay-source";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ConsumerFactory<String, Order> consumerFactory;
+    private final KafkaTemplate<String, Order> kafkaTemplate;
+    private final String ordersTopic;
+    private final String ordersDlqTopic;
+    private final String replayedTopic;
+    private final int defaultRatePerSecond;
+    private final int defaultMaxInFlight;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dlq-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ReplayJob currentJob;
+
+    public DlqReplayService(ConsumerFactory<String, Order> consumerFactory,
+                            KafkaTemplate<String, Order> kafkaTemplate,
+                            @Value("${kafka.topics.orders}") String ordersTopic,
+                            @Value("${kafka.topics.orders-dlq}") String ordersDlqTopic,
+                            @Value("${kafka.topics.orders-dlq-replayed}") String replayedTopic,
+                            @Value("${kafka.replay.rate-per-second:200}") int defaultRatePerSecond,
+                            @Value("${kafka.replay.max-in-flight:32}") int defaultMaxInFlight) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.ordersTopic = ordersTopic;
+        this.ordersDlqTopic = ordersDlqTopic;
+        this.replayedTopic = replayedTopic;
+        this.defaultRatePerSecond = defaultRatePerSecond;
+        this.defaultMaxInFlight = defaultMaxInFlight;
+    }
+
+    public synchronized DlqReplayStatus startReplay(DlqReplayRequest request) {
+        if (currentJob != null && currentJob.isActive()) {
+            throw new IllegalStateException("DLQ replay " + currentJob.id + " is still running");
+        }
+
+        int ratePerSecond = request.getRatePerSecond() != null ? request.getRatePerSecond() : defaultRatePerSecond;
+        int maxInFlight = request.getMaxInFlight() != null ? request.getMaxInFlight() : defaultMaxInFlight;
+        if (ratePerSecond < 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be >= 0 and maxInFlight must be > 0");
+        }
+        if (request.getFromOffsets() != null
+                && request.getFromOffsets().values().stream().anyMatch(offset -> offset == null || offset < 0)) {
+            throw new IllegalArgumentException("fromOffsets must map partitions to offsets >= 0");
+        }
+        if (request.getFromOffsets() != null) {
+            Set<Integer> dlqPartitions = new HashSet<>();
+            kafkaTemplate.partitionsFor(ordersDlqTopic).forEach(info -> dlqPartitions.add(info.partition()));
+            if (!dlqPartitions.containsAll(request.getFromOffsets().keySet())) {
+                throw new IllegalArgumentException("fromOffsets partitions " + request.getFromOffsets().keySet()
+                        + " are not all partitions of " + ordersDlqTopic + " " + dlqPartitions);
+            }
+        }
+
+        ReplayJob job = new ReplayJob(UUID.randomUUID().toString(), request, ratePerSecond, maxInFlight);
+        currentJob = job;
+        executor.submit(() -> run(job));
+        log.info("Started DLQ replay {} ({} orders/s, {} in flight)", job.id, ratePerSecond, maxInFlight);
+        return job.toStatus();
+    }
+
+    public Optional<DlqReplayStatus> getStatus() {
+        ReplayJob job = currentJob;
+        return job == null ? Optional.empty() : Optional.of(job.toStatus());
+    }
+
+    public Optional<DlqReplayStatus> cancelReplay() {
+        ReplayJob job = currentJob;
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (job.isActive()) {
+            job.cancelled = true;
+            log.info("Cancelling DLQ replay {}", job.id);
+        }
+        return Optional.of(job.toStatus());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ReplayJob job = currentJob;
+        if (job != null) {
+            job.cancelled = true;
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(ReplayJob job) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+
+        try (Consumer<String, Order> consumer =
+                     consumerFactory.createConsumer("dlq-replay", "dlq-replay", null, overrides)) {
+            replay(job, consumer);
+            job.finish(job.cancelled ? "CANCELLED" : "COMPLETED", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish("CANCELLED", null);
+        } catch (Exception e) {
+            log.error("DLQ replay {} failed", job.id, e);
+            job.finish("FAILED", e.getMessage());
+        }
+        log.info("DLQ replay {} finished: {}", job.id, job.toStatus());
+    }
+
+    private void replay(ReplayJob job, Consumer<String, Order> consumer) throws InterruptedException {
+        List<TopicPartition> partitions = consumer.partitionsFor(ordersDlqTopic).stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .filter(tp -> job.request.getFromOffsets() == null
+                        || job.request.getFromOffsets().containsKey(tp.partition()))
+                .toList();
+
+        // Source positions replayed by earlier jobs, including before a restart
+        Map<TopicPartition, ReplayedOffsets> replayedOffsets = loadReplayedOffsets(partitions);
+
+        consumer.assign(partitions);
+        // Snapshot the end so a replay always terminates, even while new orders land in the DLQ
+        Map<TopicPartition, Long> endOffsets = scanEndOffsets(consumer, partitions, job.request);
+        seekToStart(consumer, partitions, endOffsets, job.request);
+
+        Set<TopicPartition> remaining = new HashSet<>(partitions);
+        remaining.removeIf(tp -> consumer.position(tp) >= endOffsets.get(tp));
+
+        try {
+            while (!remaining.isEmpty() && !job.cancelled) {
+                ConsumerRecords<String, Order> records = consumer.poll(POLL_TIMEOUT);
+                for (ConsumerRecord<String, Order> record : records) {
+                    if (job.cancelled) {
+                        break;
+                    }
+                    TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+                    if (record.offset() >= endOffsets.get(tp)) {
+                        continue;
+                    }
+                    job.scanned.incrementAndGet();
+                    if (!matches(record, job.request)) {
+                        continue;
+                    }
+                    job.matched.incrementAndGet();
+
+                    ReplayedOffsets replayed = replayedOffsets.get(tp);
+                    if (replayed.contains(record.offset())) {
+                        job.skipped.incrementAndGet();
+                        continue;
+                    }
+
+                    job.throttle();
+                    if (job.cancelled) {
+                        break;
+                    }
+                    job.inFlight.acquire();
+                    send(job, record, replayed);
+                }
+                remaining.removeIf(tp -> consumer.position(tp) >= endOffsets.get(tp));
+            }
+        } finally {
+            // Wait for outstanding sends so the final counts and recorded progress are accurate
+            job.inFlight.acquireUninterruptibly(job.maxInFlight);
+            job.inFlight.release(job.maxInFlight);
+        }
+    }
+
+    private Map<TopicPartition, ReplayedOffsets> loadReplayedOffsets(List<TopicPartition> partitions) {
+        Map<String, ReplayedOffsets> bySource = new HashMap<>();
+        partitions.forEach(tp -> bySource.put(tp.toString(), new ReplayedOffsets()));
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        try (Consumer<String, Order> progress =
+                     consumerFactory.createConsumer("dlq-replay", "dlq-replay-progress", null, overrides)) {
+            List<TopicPartition> progressPartitions = progress.partitionsFor(replayedTopic).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            progress.assign(progressPartitions);
+            progress.seekToBeginning(progressPartitions);
+            Map<TopicPartition, Long> progressEnd = progress.endOffsets(progressPartitions);
+
+            Set<TopicPartition> remaining = new HashSet<>(progressPartitions);
+            remaining.removeIf(tp -> progress.position(tp) >= progressEnd.get(tp));
+            while (!remaining.isEmpty()) {
+                for (ConsumerRecord<String, Order> record : progress.poll(POLL_TIMEOUT)) {
+                    String key = record.key();
+                    int at = key != null ? key.lastIndexOf('@') : -1;
+                    ReplayedOffsets replayed = at > 0 ? bySource.get(key.substring(0, at)) : null;
+                    if (replayed != null) {
+                        replayed.add(Long.parseLong(key.substring(at + 1)));
+                    }
+                }
+                remaining.removeIf(tp -> progress.position(tp) >= progressEnd.get(tp));
+            }
+        }
+
+        Map<TopicPartition, ReplayedOffsets> replayedOffsets = new HashMap<>();
+        partitions.forEach(tp -> replayedOffsets.put(tp, bySource.get(tp.toString())));
+        return replayedOffsets;
+    }
+
+    private Map<TopicPartition, Long> scanEndOffsets(Consumer<String, Order> consumer, List<TopicPartition> partitions,
+                                                     DlqReplayRequest request) {
+        Map<TopicPartition, Long> endOffsets = new HashMap<>(consumer.endOffsets(partitions));
+        if (request.getToTimestamp() != null) {
+            // Stop each partition at its first record after toTimestamp instead of scanning to the end
+            Map<TopicPartition, Long> query = new HashMap<>();
+            partitions.forEach(tp -> query.put(tp, request.getToTimestamp() + 1));
+            Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+            for (TopicPartition tp : partitions) {
+                OffsetAndTimestamp offset = found.get(tp);
+                if (offset != null) {
+                    endOffsets.put(tp, Math.min(offset.offset(), endOffsets.get(tp)));
+                }
+            }
+        }
+        return endOffsets;
+    }
+
+    private void seekToStart(Consumer<String, Order> consumer, List<TopicPartition> partitions,
+                             Map<TopicPartition, Long> endOffsets, DlqReplayRequest request) {
+        if (request.getFromTimestamp() != null) {
+            Map<TopicPartition, Long> query = new HashMap<>();
+            partitions.forEach(tp -> query.put(tp, request.getFromTimestamp()));
+            Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+            for (TopicPartition tp : partitions) {
+                OffsetAndTimestamp offset = found.get(tp);
+                consumer.seek(tp, offset != null ? Math.min(offset.offset(), endOffsets.get(tp)) : endOffsets.get(tp));
+            }
+        } else if (request.getFromOffsets() != null) {
+            Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+            for (TopicPartition tp : partitions) {
+                long offset = Math.max(request.getFromOffsets().get(tp.partition()), beginningOffsets.get(tp));
+                consumer.seek(tp, Math.min(offset, endOffsets.get(tp)));
+            }
+        } else {
+            consumer.seekToBeginning(partitions);
+        }
+    }
+
+    private boolean matches(ConsumerRecord<String, Order> record, DlqReplayRequest request) {
+        Order order = record.value();
+        if (order == null) {
+            return false;
+        }
+        if (request.getToTimestamp() != null && record.timestamp() > request.getToTimestamp()) {
+            return false;
+        }
+        if (request.getProduct() != null
+                && !request.getProduct().equalsIgnoreCase(order.getProduct().toString())) {
+            return false;
+        }
+        if (request.getReason() != null) {
+            Header reasonHeader = record.headers().lastHeader(OrderConsumer.DLQ_REASON_HEADER);
+            String reason = reasonHeader != null ? new String(reasonHeader.value(), StandardCharsets.UTF_8) : "";
+            return reason.toLowerCase(Locale.ROOT).contains(request.getReason().toLowerCase(Locale.ROOT));
+        }
+        return true;
+    }
+
+    private void send(ReplayJob job, ConsumerRecord<String, Order> source, ReplayedOffsets replayed) {
+        long sourceOffset = source.offset();
+        String sourceId = sourceId(source);
+        ProducerRecord<String, Order> producerRecord =
+                new ProducerRecord<>(ordersTopic, source.key(), source.value());
+        producerRecord.headers().add(REPLAY_SOURCE_HEADER, sourceId.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            kafkaTemplate.send(producerRecord)
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            replayed.add(sourceOffset);
+                            job.replayed.incrementAndGet();
+                            recordProgress(job, sourceId, source.value());
+                        } else {
+                            log.warn("Failed to replay DLQ offset {} of partition {}", sourceOffset, source.partition(), ex);
+                            job.failed.incrementAndGet();
+                            job.inFlight.release();
+                        }
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to replay DLQ offset {} of partition {}", sourceOffset, source.partition(), e);
+            job.failed.incrementAndGet();
+            job.inFlight.release();
+        }
+    }
+
+    private void recordProgress(ReplayJob job, String sourceId, Order order) {
+        try {
+            kafkaTemplate.send(replayedTopic, sourceId, order)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            // Already re-sent; a later replay may send it once more
+                            log.warn("Failed to record DLQ replay progress for {}", sourceId, ex);
+                        }
+                        job.inFlight.release();
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to record DLQ replay progress for {}", sourceId, e);
+            job.inFlight.release();
+        }
+    }
+
+    // "orders-dlq-1@1200": the progress topic key and the replay-source header value
+    private static String sourceId(ConsumerRecord<String, Order> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    /**
+     * Set of offsets stored as merged [start, end] ranges, so a replayed partition costs one
+     * entry per contiguous run rather than one per record.
+     */
+    static final class ReplayedOffsets {
+
+        private final NavigableMap<Long, Long> ranges = new TreeMap<>();
+
+        synchronized boolean contains(long offset) {
+            Map.Entry<Long, Long> range = ranges.floorEntry(offset);
+            return range != null && range.getValue() >= offset;
+        }
+
+        synchronized void add(long offset) {
+            if (contains(offset)) {
+                return;
+            }
+            long start = offset;
+            long end = offset;
+            Map.Entry<Long, Long> lower = ranges.floorEntry(offset);
+            if (lower != null && lower.getValue() == offset - 1) {
+                start = lower.getKey();
+            }
+            Map.Entry<Long, Long> upper = ranges.ceilingEntry(offset + 1);
+            if (upper != null && upper.getKey() == offset + 1) {
+                end = upper.getValue();
+                ranges.remove(upper.getKey());
+            }
+            ranges.put(start, end);
+        }
+    }
+
+    private static final class ReplayJob {
+
+        private final String id;
+        private final DlqReplayRequest request;
+        private final int maxInFlight;
+        private final long intervalNanos;
+        private final Semaphore inFlight;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private long nextSendAt = System.nanoTime();
+        private volatile boolean cancelled;
+        private volatile String state = "RUNNING";
+        private volatile long finishedAt;
+        private volatile String error;
+
+        ReplayJob(String id, DlqReplayRequest request, int ratePerSecond, int maxInFlight) {
+            this.id = id;
+            this.request = request;
+            this.maxInFlight = maxInFlight;
+            this.intervalNanos = ratePerSecond > 0 ? 1_000_000_000L / ratePerSecond : 0;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        boolean isActive() {
+            return finishedAt == 0;
+        }
+
+        void throttle() {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            while (now < nextSendAt && !cancelled) {
+                LockSupport.parkNanos(nextSendAt - now);
+                now = System.nanoTime();
+            }
+            nextSendAt = Math.max(nextSendAt, now) + intervalNanos;
+        }
+
+        void finish(String finalState, String finalError) {
+            state = finalState;
+            error = finalError;
+            finishedAt = System.currentTimeMillis();
+        }
+
+        DlqReplayStatus toStatus() {
+            long end = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+            long elapsed = Math.max(1, end - startedAt);
+            long sent = replayed.get();
+            return new DlqReplayStatus(
+                    id,
+                    state,
+                    scanned.get(),
+                    matched.get(),
+                    sent,
+                    skipped.get(),
+                    failed.get(),
+                    sent * 1000.0 / elapsed,
+                    startedAt,
+                    finishedAt,
+                    error
+            );
+        }
+    }
+}
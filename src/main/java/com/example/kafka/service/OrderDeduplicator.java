@@ -0,0 +1,295 @@
+package com.example.kafka.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops redelivered orders before they reach {@link OrderStatsService}.
+ *
+ * The window is split into two generations (current and previous). Each generation has a
+ * Bloom filter for the fast "never seen" answer and a fixed-size exact table of 128-bit ids
+ * to confirm a hit, so false positives never drop a real order. Generations rotate when half
+ * the window elapses or the current one is full, which keeps memory constant.
+ */
+@Service
+@Slf4j
+public class OrderDeduplicator {
+
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASHES = 3;
+
+    private final long windowMillis;
+    private final long generationMillis;
+    private final int generationCapacity;
+
+    private Generation current;
+    private Generation previous;
+
+    // Scratch output of parseOrderId, guarded by the instance lock
+    private long parsedMsb;
+    private long parsedLsb;
+
+    @Getter
+    private final AtomicLong duplicateCount = new AtomicLong(0);
+
+    // Rotations caused by a full generation rather than time; each one shortens the effective window
+    @Getter
+    private final AtomicLong forcedRotations = new AtomicLong(0);
+
+    public OrderDeduplicator(@Value("${kafka.dedup.window-ms:600000}") long windowMillis,
+                             @Value("${kafka.dedup.capacity:1000000}") int capacity) {
+        if (windowMillis <= 0 || capacity < 2) {
+            throw new IllegalArgumentException("Dedup window must be positive and capacity at least 2");
+        }
+        this.windowMillis = windowMillis;
+        this.generationMillis = Math.max(1, windowMillis / 2);
+        this.generationCapacity = Math.max(1, capacity / 2);
+        long now = System.currentTimeMillis();
+        this.current = new Generation(generationCapacity, now);
+        this.previous = new Generation(generationCapacity, now);
+    }
+
+    /**
+     * Returns true the first time an order id is seen within the window and remembers it,
+     * false for a duplicate.
+     */
+    public boolean markIfFirst(CharSequence orderId) {
+        return markIfFirst(orderId, System.currentTimeMillis());
+    }
+
+    synchronized boolean markIfFirst(CharSequence orderId, long now) {
+        parseOrderId(orderId);
+        long msb = parsedMsb;
+        long lsb = parsedLsb;
+
+        rotateIfDue(now);
+
+        if (current.contains(msb, lsb) || previous.contains(msb, lsb)) {
+            duplicateCount.incrementAndGet();
+            return false;
+        }
+        if (current.isFull()) {
+            forcedRotations.incrementAndGet();
+            log.warn("Dedup generation filled after {} ms of its {} ms; raise kafka.dedup.capacity to keep the full window",
+                    now - current.startedAt, generationMillis);
+            rotate(now);
+        }
+        current.add(msb, lsb);
+        return true;
+    }
+
+    /**
+     * Removes an order id marked by {@link #markIfFirst}, e.g. when processing it failed and it
+     * will be delivered again through the retry topic.
+     */
+    public synchronized void forget(CharSequence orderId) {
+        parseOrderId(orderId);
+        if (!current.remove(parsedMsb, parsedLsb)) {
+            previous.remove(parsedMsb, parsedLsb);
+        }
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public int getCapacity() {
+        return generationCapacity * 2;
+    }
+
+    private void rotateIfDue(long now) {
+        if (now - current.startedAt >= generationMillis) {
+            // A full window passed without traffic: both generations are stale
+            if (now - current.startedAt >= 2 * generationMillis) {
+                current.clear(now);
+            }
+            rotate(now);
+        }
+    }
+
+    private void rotate(long now) {
+        Generation recycled = previous;
+        recycled.clear(now);
+        previous = current;
+        current = recycled;
+    }
+
+    /**
+     * Parses a canonical UUID string into two longs without allocating. Ids that are not
+     * UUIDs are folded into 128 bits with two independent 64-bit hashes.
+     */
+    private void parseOrderId(CharSequence id) {
+        if (id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-'
+                && id.charAt(18) == '-' && id.charAt(23) == '-') {
+            long msb = 0;
+            long lsb = 0;
+            boolean valid = true;
+            for (int i = 0, nibbles = 0; i < 36 && valid; i++) {
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    continue;
+                }
+                int digit = Character.digit(id.charAt(i), 16);
+                if (digit < 0) {
+                    valid = false;
+                } else if (nibbles++ < 16) {
+                    msb = (msb << 4) | digit;
+                } else {
+                    lsb = (lsb << 4) | digit;
+                }
+            }
+            if (valid) {
+                parsedMsb = msb;
+                parsedLsb = lsb;
+                return;
+            }
+        }
+
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            h1 = (h1 ^ c) * 0x100000001b3L;
+            h2 = mix(h2 + c);
+        }
+        parsedMsb = mix(h1);
+        parsedLsb = h2;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Generation {
+
+        private final long[] bloom;
+        private final int bloomMask;
+        private final long[] msbs;
+        private final long[] lsbs;
+        private final boolean[] used;
+        private final int tableMask;
+        private final int capacity;
+        private int size;
+        private long startedAt;
+
+        Generation(int capacity, long startedAt) {
+            this.capacity = capacity;
+            int bloomBits = powerOfTwoAtLeast((long) capacity * BLOOM_BITS_PER_ENTRY);
+            this.bloom = new long[Math.max(1, bloomBits >>> 6)];
+            this.bloomMask = bloomBits - 1;
+            // Load factor of at most 0.5 keeps linear probes short
+            int tableSize = powerOfTwoAtLeast((long) capacity * 2);
+            this.msbs = new long[tableSize];
+            this.lsbs = new long[tableSize];
+            this.used = new boolean[tableSize];
+            this.tableMask = tableSize - 1;
+            this.startedAt = startedAt;
+        }
+
+        boolean isFull() {
+            return size >= capacity;
+        }
+
+        boolean contains(long msb, long lsb) {
+            if (size == 0 || !bloomMightContain(msb, lsb)) {
+                return false;
+            }
+            int slot = slotFor(msb, lsb);
+            while (used[slot]) {
+                if (msbs[slot] == msb && lsbs[slot] == lsb) {
+                    return true;
+                }
+                slot = (slot + 1) & tableMask;
+            }
+            return false;
+        }
+
+        // The Bloom bits stay set; a stale bit only costs one exact-table probe
+        boolean remove(long msb, long lsb) {
+            int slot = slotFor(msb, lsb);
+            while (used[slot]) {
+                if (msbs[slot] == msb && lsbs[slot] == lsb) {
+                    deleteAt(slot);
+                    size--;
+                    return true;
+                }
+                slot = (slot + 1) & tableMask;
+            }
+            return false;
+        }
+
+        // Backward-shift deletion keeps every remaining entry reachable from its home slot
+        private void deleteAt(int hole) {
+            int slot = hole;
+            while (true) {
+                slot = (slot + 1) & tableMask;
+                if (!used[slot]) {
+                    break;
+                }
+                int home = slotFor(msbs[slot], lsbs[slot]);
+                if (((slot - home) & tableMask) >= ((slot - hole) & tableMask)) {
+                    msbs[hole] = msbs[slot];
+                    lsbs[hole] = lsbs[slot];
+                    hole = slot;
+                }
+            }
+            used[hole] = false;
+        }
+
+        private int slotFor(long msb, long lsb) {
+            return (int) mix(msb ^ Long.rotateLeft(lsb, 32)) & tableMask;
+        }
+
+        void add(long msb, long lsb) {
+            long h1 = mix(msb);
+            long h2 = mix(lsb) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) (h1 + i * h2) & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+            int slot = slotFor(msb, lsb);
+            while (used[slot]) {
+                slot = (slot + 1) & tableMask;
+            }
+            used[slot] = true;
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            size++;
+        }
+
+        void clear(long now) {
+            if (size > 0) {
+                Arrays.fill(bloom, 0L);
+                Arrays.fill(used, false);
+                size = 0;
+            }
+            startedAt = now;
+        }
+
+        private boolean bloomMightContain(long msb, long lsb) {
+            long h1 = mix(msb);
+            long h2 = mix(lsb) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) (h1 + i * h2) & bloomMask;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int powerOfTwoAtLeast(long n) {
+            long p = Long.highestOneBit(Math.max(64, n - 1)) << 1;
+            if (p > (1 << 30)) {
+                throw new IllegalArgumentException("Dedup capacity too large: " + n);
+            }
+            return (int) p;
+        }
+    }
+}
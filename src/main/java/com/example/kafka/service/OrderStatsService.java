@@ -3,15 +3,23 @@ package com.example.kafka.service;
 import com.example.kafka.avro.Order;
 import com.example.kafka.model.OrderDTO;
 import com.example.kafka.model.OrderStats;
+import com.example.kafka.model.PartitionOrderStats;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Service
@@ -19,59 +27,138 @@ import java.util.concurrent.atomic.AtomicLong;
 public class OrderStatsService {
 
     private final SimpMessagingTemplate messagingTemplate;
+
+    // One shard per assigned partition, created and retired only by the listener rebalance callbacks
+    private final ConcurrentMap<TopicPartition, PartitionStats> shards = new ConcurrentHashMap<>();
+
+    // Snapshot of the shard values, so merging on read does not allocate an iterator
+    private volatile PartitionStats[] shardSnapshot = new PartitionStats[0];
+
+    // Partitions revoked from each listener thread, retired only if that thread's next assignment drops them
+    private final ThreadLocal<Set<TopicPartition>> pendingRevoked = ThreadLocal.withInitial(HashSet::new);
+
+    // Orders recorded without a shard
+    private final PartitionStats unassigned = new PartitionStats(null, true);
+
+    // Totals of retired shards, so the overall stats never go backwards
+    private final PartitionStats retired = new PartitionStats(null, true);
+
+    // Retries are counted from producer callbacks, which may run after the partition moved away
+    private final AtomicLong retryCount = new AtomicLong(0);
+    private final ConcurrentMap<TopicPartition, AtomicLong> partitionRetries = new ConcurrentHashMap<>();
+
+    // Last stats sent to /topic/stats, only touched by the scheduler thread
+    private OrderStats lastBroadcastStats;
     
-    @Getter
-    private final AtomicLong totalOrders = new AtomicLong(0);
-    private final AtomicLong priceSum = new AtomicLong(0);
-    
-    @Getter
-    private final AtomicInteger retryCount = new AtomicInteger(0);
-    
-    @Getter
-    private final AtomicInteger dlqCount = new AtomicInteger(0);
-    
-    @Getter
-    private final ConcurrentLinkedQueue<OrderDTO> recentOrders = new ConcurrentLinkedQueue<>();
+    private final RecentOrdersRing recentOrders = new RecentOrdersRing(MAX_RECENT_ORDERS);
+
+    private final ProductNames productNames = new ProductNames(MAX_PRODUCT_NAMES);
+
+    // convertAndSend serializes the payload before returning, so this can be refilled per record
+    private final ThreadLocal<OrderDTO> orderBroadcast = ThreadLocal.withInitial(OrderDTO::new);
     
     @Getter
     private final ConcurrentLinkedQueue<OrderDTO> dlqMessages = new ConcurrentLinkedQueue<>();
     
     private static final int MAX_RECENT_ORDERS = 50;
     private static final int MAX_DLQ_MESSAGES = 50;
+    private static final int MAX_PRODUCT_NAMES = 1024;
 
     public OrderStatsService(SimpMessagingTemplate messagingTemplate) {
         this.messagingTemplate = messagingTemplate;
     }
 
+    public void assignPartitions(Collection<TopicPartition> partitions) {
+        // The eager assignor revokes everything before each rebalance; keep shards that came back
+        Set<TopicPartition> pending = pendingRevoked.get();
+        pending.removeAll(partitions);
+        retire(pending);
+        pending.clear();
+
+        for (TopicPartition partition : partitions) {
+            shards.computeIfAbsent(partition, tp -> new PartitionStats(tp, false));
+        }
+        refreshShardSnapshot();
+        log.info("Stats shards assigned: {}", partitions);
+    }
+
+    public void revokePartitions(Collection<TopicPartition> partitions) {
+        // Counted as before until the next assignment shows whether another member took them
+        pendingRevoked.get().addAll(partitions);
+        log.info("Stats shards revoked: {}", partitions);
+    }
+
+    public void losePartitions(Collection<TopicPartition> partitions) {
+        pendingRevoked.get().removeAll(partitions);
+        retire(partitions);
+        log.info("Stats shards lost: {}", partitions);
+    }
+
+    private void retire(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        // Merge and remove under the lock fillStats reads with, so totals never count a shard twice or not at all
+        synchronized (this) {
+            for (TopicPartition partition : partitions) {
+                PartitionStats shard = shards.remove(partition);
+                if (shard != null) {
+                    retired.mergeFrom(shard);
+                }
+                // Already part of the overall retry count; a later shard for this partition starts at zero
+                partitionRetries.remove(partition);
+            }
+            refreshShardSnapshot();
+        }
+    }
+
     public void recordOrder(Order order) {
-        totalOrders.incrementAndGet();
-        
+        recordOrder(unassigned, order);
+    }
+
+    public void recordOrder(TopicPartition partition, Order order) {
+        recordOrder(shardFor(partition), order);
+    }
+
+    private void recordOrder(PartitionStats shard, Order order) {
         // Convert float to long for atomic operation (multiply by 100 to preserve 2 decimal places)
         long priceAsLong = (long) (order.getPrice() * 100);
-        priceSum.addAndGet(priceAsLong);
+        shard.recordOrder(priceAsLong);
 
-        OrderDTO orderDTO = new OrderDTO(
-                order.getOrderId().toString(),
-                order.getProduct().toString(),
-                order.getPrice(),
-                "PROCESSED",
-                System.currentTimeMillis()
-        );
+        OrderDTO orderDTO = orderBroadcast.get();
+        orderDTO.setOrderId(order.getOrderId().toString());
+        orderDTO.setProduct(productNames.intern(order.getProduct()));
+        orderDTO.setPrice(order.getPrice());
+        orderDTO.setStatus("PROCESSED");
+        orderDTO.setTimestamp(System.currentTimeMillis());
 
-        addToRecentOrders(orderDTO);
+        recentOrders.add(orderDTO);
         
         // Send update via WebSocket
         messagingTemplate.convertAndSend("/topic/orders", orderDTO);
-        messagingTemplate.convertAndSend("/topic/stats", getStats());
     }
 
     public void recordRetry() {
         retryCount.incrementAndGet();
-        messagingTemplate.convertAndSend("/topic/stats", getStats());
+    }
+
+    public void recordRetry(TopicPartition partition) {
+        if (shards.containsKey(partition)) {
+            partitionRetries.computeIfAbsent(partition, tp -> new AtomicLong(0)).incrementAndGet();
+        }
+        retryCount.incrementAndGet();
     }
 
     public void recordDlq(Order order, String reason) {
-        dlqCount.incrementAndGet();
+        recordDlq(unassigned, order, reason);
+    }
+
+    public void recordDlq(TopicPartition partition, Order order, String reason) {
+        recordDlq(shardFor(partition), order, reason);
+    }
+
+    private void recordDlq(PartitionStats shard, Order order, String reason) {
+        shard.recordDlq();
 
         OrderDTO orderDTO = new OrderDTO(
                 order.getOrderId().toString(),
@@ -85,16 +172,28 @@ public class OrderStatsService {
         
         // Send update via WebSocket
         messagingTemplate.convertAndSend("/topic/dlq", orderDTO);
-        messagingTemplate.convertAndSend("/topic/stats", getStats());
     }
 
-    private void addToRecentOrders(OrderDTO order) {
-        recentOrders.offer(order);
-        if (recentOrders.size() > MAX_RECENT_ORDERS) {
-            recentOrders.poll();
+    // Totals are merged once per tick instead of once per record
+    @Scheduled(fixedRateString = "${kafka.stats.broadcast-interval-ms:500}")
+    public void broadcastStats() {
+        OrderStats stats = getStats();
+        if (!stats.equals(lastBroadcastStats)) {
+            messagingTemplate.convertAndSend("/topic/stats", stats);
+            lastBroadcastStats = stats;
         }
     }
 
+    private PartitionStats shardFor(TopicPartition partition) {
+        // Shards only come from rebalance callbacks; without one (e.g. no listener configured) count in the totals only
+        PartitionStats shard = shards.get(partition);
+        return shard != null ? shard : unassigned;
+    }
+
+    private synchronized void refreshShardSnapshot() {
+        shardSnapshot = shards.values().toArray(new PartitionStats[0]);
+    }
+
     private void addToDlqMessages(OrderDTO order) {
         dlqMessages.offer(order);
         if (dlqMessages.size() > MAX_DLQ_MESSAGES) {
@@ -102,26 +201,59 @@ public class OrderStatsService {
         }
     }
 
+    public long getTotalOrders() {
+        return getStats().getTotalOrders();
+    }
+
+    public int getRetryCount() {
+        return getStats().getRetryCount();
+    }
+
+    public int getDlqCount() {
+        return getStats().getDlqCount();
+    }
+
     public double getRunningAverage() {
-        long total = totalOrders.get();
-        if (total == 0) {
-            return 0.0;
+        return getStats().getRunningAverage();
+    }
+
+    public OrderStats getStats() {
+        return fillStats(new OrderStats());
+    }
+
+    private synchronized OrderStats fillStats(OrderStats stats) {
+        // Merge on read: shards are only summed when someone asks for the totals
+        long total = unassigned.getTotalOrders() + retired.getTotalOrders();
+        long priceSum = unassigned.getPriceSum() + retired.getPriceSum();
+        long dlq = unassigned.getDlqCount() + retired.getDlqCount();
+        for (PartitionStats shard : shardSnapshot) {
+            total += shard.getTotalOrders();
+            priceSum += shard.getPriceSum();
+            dlq += shard.getDlqCount();
         }
+        long retries = retryCount.get();
+
         // Divide by 100 to convert back from the scaled integer
-        return (priceSum.get() / 100.0) / total;
+        stats.setTotalOrders(total);
+        stats.setRunningAverage(total == 0 ? 0.0 : (priceSum / 100.0) / total);
+        stats.setRetryCount((int) retries);
+        stats.setDlqCount((int) dlq);
+        return stats;
     }
 
-    public OrderStats getStats() {
-        return new OrderStats(
-                totalOrders.get(),
-                getRunningAverage(),
-                retryCount.get(),
-                dlqCount.get()
-        );
+    public List<PartitionOrderStats> getPartitionStats() {
+        List<PartitionOrderStats> partitionStats = new ArrayList<>(shardSnapshot.length);
+        for (PartitionStats shard : shardSnapshot) {
+            AtomicLong retries = partitionRetries.get(shard.getPartition());
+            partitionStats.add(shard.toView(retries == null ? 0 : retries.get()));
+        }
+        partitionStats.sort(Comparator.comparing(PartitionOrderStats::getTopic)
+                .thenComparingInt(PartitionOrderStats::getPartition));
+        return partitionStats;
     }
 
     public List<OrderDTO> getRecentOrders() {
-        return new ArrayList<>(recentOrders);
+        return recentOrders.snapshot();
     }
 
     public List<OrderDTO> getDlqMessages() {
@@ -0,0 +1,80 @@
+package com.example.kafka.service;
+
+import com.example.kafka.model.PartitionOrderStats;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for one shard of {@link OrderStatsService}.
+ *
+ * A partition shard is only written by the listener thread that owns the partition, so its
+ * counters are bumped with a plain read and an ordered store instead of a CAS. Shared shards
+ * (orders recorded without a shard, totals of retired partitions) use atomic adds. Retries are
+ * counted from producer callbacks, so they are kept by the service rather than in a shard.
+ */
+final class PartitionStats {
+
+    private final TopicPartition partition;
+    private final boolean sharedWriter;
+
+    private final AtomicLong totalOrders = new AtomicLong(0);
+    private final AtomicLong priceSum = new AtomicLong(0);
+    private final AtomicLong dlqCount = new AtomicLong(0);
+
+    PartitionStats(TopicPartition partition, boolean sharedWriter) {
+        this.partition = partition;
+        this.sharedWriter = sharedWriter;
+    }
+
+    void recordOrder(long priceAsLong) {
+        add(priceSum, priceAsLong);
+        add(totalOrders, 1);
+    }
+
+    void recordDlq() {
+        add(dlqCount, 1);
+    }
+
+    void mergeFrom(PartitionStats other) {
+        totalOrders.addAndGet(other.totalOrders.get());
+        priceSum.addAndGet(other.priceSum.get());
+        dlqCount.addAndGet(other.dlqCount.get());
+    }
+
+    TopicPartition getPartition() {
+        return partition;
+    }
+
+    long getTotalOrders() {
+        return totalOrders.get();
+    }
+
+    long getPriceSum() {
+        return priceSum.get();
+    }
+
+    long getDlqCount() {
+        return dlqCount.get();
+    }
+
+    PartitionOrderStats toView(long retryCount) {
+        long total = totalOrders.get();
+        return new PartitionOrderStats(
+                partition.topic(),
+                partition.partition(),
+                total,
+                total == 0 ? 0.0 : (priceSum.get() / 100.0) / total,
+                retryCount,
+                dlqCount.get()
+        );
+    }
+
+    private void add(AtomicLong counter, long delta) {
+        if (sharedWriter) {
+            counter.addAndGet(delta);
+        } else {
+            counter.lazySet(counter.get() + delta);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.kafka.service;
+
+import org.apache.avro.util.Utf8;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded table of canonical product names. Deserialized orders carry the product as a fresh
+ * {@link Utf8}; looking it up here returns a shared String instead of decoding a new one per record.
+ */
+final class ProductNames {
+
+    private final int maxSize;
+    private final ConcurrentMap<Utf8, String> names = new ConcurrentHashMap<>();
+
+    ProductNames(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    String intern(CharSequence product) {
+        if (product instanceof String name) {
+            return name;
+        }
+        if (!(product instanceof Utf8 utf8)) {
+            return product.toString();
+        }
+        String name = names.get(utf8);
+        if (name == null) {
+            name = utf8.toString();
+            // Past the limit unknown names are decoded per record rather than growing the table
+            if (names.size() < maxSize) {
+                String existing = names.putIfAbsent(new Utf8(name), name);
+                if (existing != null) {
+                    name = existing;
+                }
+            }
+        }
+        return name;
+    }
+}
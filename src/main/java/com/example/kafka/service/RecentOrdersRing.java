@@ -0,0 +1,45 @@
+package com.example.kafka.service;
+
+import com.example.kafka.model.OrderDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed ring of preallocated {@link OrderDTO} slots for the recent orders list. Recording an
+ * order copies its fields into the oldest slot, so the steady state allocates nothing; readers
+ * get copies.
+ */
+final class RecentOrdersRing {
+
+    private final OrderDTO[] slots;
+    private long written;
+
+    RecentOrdersRing(int capacity) {
+        slots = new OrderDTO[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new OrderDTO();
+        }
+    }
+
+    synchronized void add(OrderDTO order) {
+        OrderDTO slot = slots[(int) (written % slots.length)];
+        slot.setOrderId(order.getOrderId());
+        slot.setProduct(order.getProduct());
+        slot.setPrice(order.getPrice());
+        slot.setStatus(order.getStatus());
+        slot.setTimestamp(order.getTimestamp());
+        written++;
+    }
+
+    synchronized List<OrderDTO> snapshot() {
+        int size = (int) Math.min(written, slots.length);
+        List<OrderDTO> orders = new ArrayList<>(size);
+        for (long i = written - size; i < written; i++) {
+            OrderDTO slot = slots[(int) (i % slots.length)];
+            orders.add(new OrderDTO(slot.getOrderId(), slot.getProduct(), slot.getPrice(),
+                    slot.getStatus(), slot.getTimestamp()));
+        }
+        return orders;
+    }
+}
@@ -9,7 +9,8 @@ import org.springframework.test.context.TestPropertySource;
     "spring.kafka.bootstrap-servers=localhost:9092",
     "kafka.topics.orders=test-orders",
     "kafka.topics.orders-retry=test-orders-retry",
-    "kafka.topics.orders-dlq=test-orders-dlq"
+    "kafka.topics.orders-dlq=test-orders-dlq",
+    "kafka.topics.orders-dlq-replayed=test-orders-dlq-replayed"
 })
 class KafkaAvroOrderPipelineApplicationTests {
 
@@ -0,0 +1,230 @@
+package com.example.kafka;
+
+import com.example.kafka.avro.Order;
+import com.example.kafka.consumer.FailureSimulator;
+import com.example.kafka.model.OrderStats;
+import com.example.kafka.producer.OrderProducer;
+import com.example.kafka.service.OrderStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pushes a fixed workload through OrderProducer -> OrderConsumer -> OrderStatsService on an
+ * embedded broker, including retries and DLQ, and checks the exact final counts.
+ *
+ * Latency is measured on a first batch sent at a fixed rate below capacity, so p99 reflects the
+ * pipeline rather than queueing. Throughput is measured on a second, unpaced burst as the rate at
+ * which the pipeline drains it.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pperformance}. Limits can be tuned
+ * with -Dperf.orders, -Dperf.latency-orders, -Dperf.rate, -Dperf.min-throughput and -Dperf.max-p99-ms.
+ */
+@Tag("performance")
+@SpringBootTest
+@DirtiesContext
+@EmbeddedKafka(partitions = 3)
+@TestPropertySource(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "kafka.topics.orders=perf-orders",
+    "kafka.topics.orders-retry=perf-orders-retry",
+    "kafka.topics.orders-dlq=perf-orders-dlq",
+    "kafka.topics.orders-dlq-replayed=perf-orders-dlq-replayed",
+    // Lets PerformanceConfig replace the scanned beans instead of adding second instances
+    "spring.main.allow-bean-definition-overriding=true"
+})
+@Slf4j
+class OrderPipelinePerformanceTest {
+
+    private static final int LATENCY_ORDERS = Integer.getInteger("perf.latency-orders", 20_000);
+    private static final int BURST_ORDERS = Integer.getInteger("perf.orders", 100_000);
+    private static final int TOTAL_ORDERS = LATENCY_ORDERS + BURST_ORDERS;
+    private static final int SEND_RATE = Integer.getInteger("perf.rate", 2_000);
+    private static final double MIN_THROUGHPUT = Double.parseDouble(System.getProperty("perf.min-throughput", "2000"));
+    private static final long MAX_P99_MS = Long.getLong("perf.max-p99-ms", 2_000);
+    private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+    // Every 10th order fails 0..4 times in turn; with max-attempts=3, four failures end in the DLQ
+    private static final int FAILURE_CYCLE = 5;
+
+    private static final AtomicLongArray sentAt = new AtomicLongArray(TOTAL_ORDERS);
+    private static final AtomicLongArray latencies = new AtomicLongArray(TOTAL_ORDERS);
+
+    @Autowired
+    private OrderProducer orderProducer;
+
+    @Autowired
+    private OrderStatsService statsService;
+
+    @Value("${kafka.retry.max-attempts}")
+    private int maxRetryAttempts;
+
+    @Test
+    void pipelineMeetsThroughputAndLatencyTargets() throws InterruptedException {
+        // Latency phase: paced sends
+        long intervalNanos = 1_000_000_000L / SEND_RATE;
+        long latencyStart = System.nanoTime();
+        for (int i = 0; i < LATENCY_ORDERS; i++) {
+            long due = latencyStart + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            send(i);
+        }
+        assertStats(awaitStats(expectedStats(LATENCY_ORDERS)), expectedStats(LATENCY_ORDERS));
+        long p50Ms = TimeUnit.NANOSECONDS.toMillis(percentile(0.50, 0, LATENCY_ORDERS));
+        long p99Ms = TimeUnit.NANOSECONDS.toMillis(percentile(0.99, 0, LATENCY_ORDERS));
+
+        // Throughput phase: unpaced burst, measured until the last order is counted
+        long burstStart = System.nanoTime();
+        for (int i = LATENCY_ORDERS; i < TOTAL_ORDERS; i++) {
+            send(i);
+        }
+        OrderStats expected = expectedStats(TOTAL_ORDERS);
+        OrderStats actual = awaitStats(expected);
+        assertStats(actual, expected);
+        double throughput = BURST_ORDERS * 1_000_000_000.0 / (lastCompletion(LATENCY_ORDERS, TOTAL_ORDERS) - burstStart);
+
+        log.info("Pipeline: {} paced orders at {}/s, p50 {} ms, p99 {} ms; {} burst orders drained at {} orders/s",
+                LATENCY_ORDERS, SEND_RATE, p50Ms, p99Ms, BURST_ORDERS, Math.round(throughput));
+
+        assertTrue(throughput >= MIN_THROUGHPUT,
+                "burst drained at " + Math.round(throughput) + " orders/s, below " + MIN_THROUGHPUT);
+        assertTrue(p99Ms <= MAX_P99_MS,
+                "p99 latency " + p99Ms + " ms (p50 " + p50Ms + " ms) above " + MAX_P99_MS + " ms");
+    }
+
+    private void send(int index) {
+        Order order = Order.newBuilder()
+                .setOrderId(new UUID(0L, index).toString())
+                .setProduct("Laptop")
+                .setPrice(priceOf(index))
+                .build();
+        sentAt.set(index, System.nanoTime());
+        orderProducer.sendOrder(order);
+    }
+
+    private OrderStats expectedStats(int orders) {
+        long processed = 0;
+        long retries = 0;
+        long dlq = 0;
+        long cents = 0;
+        for (int i = 0; i < orders; i++) {
+            int failures = failuresFor(i);
+            if (failures > maxRetryAttempts) {
+                dlq++;
+                retries += maxRetryAttempts;
+            } else {
+                processed++;
+                retries += failures;
+                cents += (long) (priceOf(i) * 100);
+            }
+        }
+        return new OrderStats(processed, cents / 100.0 / processed, (int) retries, (int) dlq);
+    }
+
+    private void assertStats(OrderStats actual, OrderStats expected) {
+        assertEquals(expected.getTotalOrders(), actual.getTotalOrders(), "processed orders");
+        assertEquals(expected.getRetryCount(), actual.getRetryCount(), "retries");
+        assertEquals(expected.getDlqCount(), actual.getDlqCount(), "DLQ orders");
+        assertEquals(expected.getRunningAverage(), actual.getRunningAverage(), 0.01, "running average");
+    }
+
+    private OrderStats awaitStats(OrderStats expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        OrderStats stats = statsService.getStats();
+        while (System.currentTimeMillis() < deadline
+                && (stats.getTotalOrders() != expected.getTotalOrders()
+                    || stats.getRetryCount() != expected.getRetryCount()
+                    || stats.getDlqCount() != expected.getDlqCount())) {
+            Thread.sleep(100);
+            stats = statsService.getStats();
+        }
+        return stats;
+    }
+
+    private long lastCompletion(int from, int to) {
+        long last = 0;
+        for (int i = from; i < to; i++) {
+            last = Math.max(last, sentAt.get(i) + latencies.get(i));
+        }
+        return last;
+    }
+
+    private long percentile(double p, int from, int to) {
+        long[] sorted = new long[to - from];
+        for (int i = from; i < to; i++) {
+            sorted[i - from] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(p * sorted.length) - 1];
+    }
+
+    private static float priceOf(int index) {
+        return 100.0f + index % 100;
+    }
+
+    private static int failuresFor(int index) {
+        return index % 10 == 0 ? (index / 10) % FAILURE_CYCLE : 0;
+    }
+
+    private static int indexOf(Order order) {
+        return (int) UUID.fromString(order.getOrderId().toString()).getLeastSignificantBits();
+    }
+
+    private static void recordCompletion(Order order) {
+        int index = indexOf(order);
+        latencies.set(index, System.nanoTime() - sentAt.get(index));
+    }
+
+    @TestConfiguration
+    static class PerformanceConfig {
+
+        @Bean
+        FailureSimulator failureSimulator() {
+            return new FailureSimulator(0.0) {
+                @Override
+                public boolean shouldFail(Order order, int retryAttempt) {
+                    return retryAttempt < failuresFor(indexOf(order));
+                }
+            };
+        }
+
+        // Same name as the scanned bean, so there is a single stats service and broadcast tick
+        @Bean
+        OrderStatsService orderStatsService(SimpMessagingTemplate messagingTemplate) {
+            return new OrderStatsService(messagingTemplate) {
+                @Override
+                public void recordOrder(TopicPartition partition, Order order) {
+                    super.recordOrder(partition, order);
+                    recordCompletion(order);
+                }
+
+                @Override
+                public void recordDlq(TopicPartition partition, Order order, String reason) {
+                    super.recordDlq(partition, order, reason);
+                    recordCompletion(order);
+                }
+            };
+        }
+    }
+}
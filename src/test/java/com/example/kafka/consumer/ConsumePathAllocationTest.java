@@ -0,0 +1,49 @@
+package com.example.kafka.consumer;
+
+import com.sun.management.ThreadMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keeps bytes allocated per record on the consume path ({@link ConsumePathFixture}, deserialization
+ * included) under a limit, using the per-thread allocation counter that gc.alloc.rate.norm is based on.
+ * {@link ConsumePathBenchmark} gives the full JMH figures.
+ *
+ * Run with {@code mvn test -Pperformance -Dtest=ConsumePathAllocationTest}; the limit can be
+ * tuned with -Dperf.max-bytes-per-record.
+ */
+@Tag("performance")
+@Slf4j
+class ConsumePathAllocationTest {
+
+    private static final int WARMUP_RECORDS = 100_000;
+    private static final int MEASURED_RECORDS = 200_000;
+    private static final long MAX_BYTES_PER_RECORD = Long.getLong("perf.max-bytes-per-record", 4_096);
+
+    @Test
+    void consumePathStaysWithinAllocationBudget() {
+        try (ConsumePathFixture fixture = new ConsumePathFixture()) {
+            for (int i = 0; i < WARMUP_RECORDS; i++) {
+                fixture.consumeNext();
+            }
+
+            ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_RECORDS; i++) {
+                fixture.consumeNext();
+            }
+            double bytesPerRecord = (double) (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_RECORDS;
+
+            assertEquals(WARMUP_RECORDS + MEASURED_RECORDS, fixture.consumed());
+            log.info("Consume path allocation: {} bytes/record", Math.round(bytesPerRecord));
+            assertTrue(bytesPerRecord <= MAX_BYTES_PER_RECORD,
+                    "consume path allocated " + Math.round(bytesPerRecord) + " bytes/record, limit " + MAX_BYTES_PER_RECORD);
+        }
+    }
+}
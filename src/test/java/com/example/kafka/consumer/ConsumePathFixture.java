@@ -0,0 +1,123 @@
+package com.example.kafka.consumer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.kafka.avro.Order;
+import com.example.kafka.serializer.AvroDeserializer;
+import com.example.kafka.serializer.AvroSerializer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * The consume path as the listener container drives it: key and value deserialization, then
+ * OrderConsumer with the beans it gets wired with, ending at the STOMP broadcast. Kafka sends
+ * complete at once and broadcasts go nowhere, so only the application's own work is measured.
+ *
+ * Beans are found by component scan rather than constructed, so this class compiles and runs
+ * unchanged against older revisions of the consumer and service packages. Every record gets a
+ * fresh UUID order id by rewriting the serialized bytes in place.
+ */
+final class ConsumePathFixture implements AutoCloseable {
+
+    private static final String TOPIC = "orders";
+    private static final String ID_TEMPLATE = "00000000-0000-4000-8000-000000000000";
+    // Avro writes a 36-char string as its zig-zag length (one byte) followed by the chars
+    private static final int ORDER_ID_OFFSET = 1;
+    private static final int SEQUENCE_DIGITS = 12;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final CompletableFuture<SendResult<String, Order>> SENT = CompletableFuture.completedFuture(null);
+
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    private final OrderConsumer consumer;
+    private final StringDeserializer keyDeserializer = new StringDeserializer();
+    private final AvroDeserializer<Order> valueDeserializer = new AvroDeserializer<>(Order.class);
+    private final byte[] key = ID_TEMPLATE.getBytes(StandardCharsets.US_ASCII);
+    private final byte[] value;
+    private long sequence;
+
+    @SuppressWarnings("unchecked")
+    ConsumePathFixture() {
+        // Per-record logging is not part of the measured work
+        ((Logger) LoggerFactory.getLogger("com.example.kafka")).setLevel(Level.OFF);
+
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("consume-path", Map.of(
+                "kafka.topics.orders", TOPIC,
+                "kafka.topics.orders-retry", "orders-retry",
+                "kafka.topics.orders-dlq", "orders-dlq",
+                "kafka.topics.orders-dlq-replayed", "orders-dlq-replayed",
+                "kafka.retry.max-attempts", "3",
+                "kafka.simulation.failure-rate", "0.1")));
+        context.registerBean(SimpMessagingTemplate.class, ConsumePathFixture::messagingTemplate);
+        context.registerBean(KafkaTemplate.class, () -> new KafkaTemplate<String, Order>(
+                mock(ProducerFactory.class, withSettings().stubOnly())) {
+            @Override
+            public CompletableFuture<SendResult<String, Order>> send(ProducerRecord<String, Order> record) {
+                return SENT;
+            }
+        });
+        context.registerBean(ConsumerFactory.class, () -> mock(ConsumerFactory.class, withSettings().stubOnly()));
+        context.scan("com.example.kafka.consumer", "com.example.kafka.service");
+        context.refresh();
+        consumer = context.getBean(OrderConsumer.class);
+
+        Order order = Order.newBuilder()
+                .setOrderId(ID_TEMPLATE)
+                .setProduct("Laptop")
+                .setPrice(499.99f)
+                .build();
+        value = new AvroSerializer<Order>().serialize(TOPIC, order);
+        if (value[0] != ID_TEMPLATE.length() * 2) {
+            throw new IllegalStateException("Unexpected Avro layout for Order");
+        }
+    }
+
+    void consumeNext() {
+        long next = sequence++;
+        writeSequence(key, 0, next);
+        writeSequence(value, ORDER_ID_OFFSET, next);
+
+        String recordKey = keyDeserializer.deserialize(TOPIC, key);
+        Order order = valueDeserializer.deserialize(TOPIC, value);
+        consumer.consumeOrder(new ConsumerRecord<>(TOPIC, 0, next, recordKey, order));
+    }
+
+    long consumed() {
+        return sequence;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    // Last 12 hex digits of the UUID node field
+    private static void writeSequence(byte[] target, int idOffset, long sequence) {
+        int end = idOffset + ID_TEMPLATE.length();
+        for (int i = 1; i <= SEQUENCE_DIGITS; i++) {
+            target[end - i] = HEX[(int) (sequence >>> (4 * (i - 1))) & 0xf];
+        }
+    }
+
+    private static SimpMessagingTemplate messagingTemplate() {
+        // Same JSON conversion as the broker-backed template, but messages go nowhere
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        messagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+        return messagingTemplate;
+    }
+}
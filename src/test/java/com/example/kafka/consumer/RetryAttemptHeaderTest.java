@@ -0,0 +1,30 @@
+package com.example.kafka.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryAttemptHeaderTest {
+
+    @Test
+    void testRoundTrip() {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            assertEquals(attempt, RetryAttemptHeader.decode(RetryAttemptHeader.encode(attempt)));
+        }
+    }
+
+    @Test
+    void testWireFormatIsAsciiDecimal() {
+        assertArrayEquals("3".getBytes(StandardCharsets.UTF_8), RetryAttemptHeader.encode(3));
+        assertEquals(12, RetryAttemptHeader.decode("12".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testRejectsInvalidValues() {
+        assertThrows(NumberFormatException.class, () -> RetryAttemptHeader.decode(new byte[0]));
+        assertThrows(NumberFormatException.class,
+                () -> RetryAttemptHeader.decode("x1".getBytes(StandardCharsets.UTF_8)));
+    }
+}
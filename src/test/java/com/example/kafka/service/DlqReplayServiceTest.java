@@ -0,0 +1,312 @@
+package com.example.kafka.service;
+
+import com.example.kafka.avro.Order;
+import com.example.kafka.consumer.OrderConsumer;
+import com.example.kafka.model.DlqReplayRequest;
+import com.example.kafka.model.DlqReplayStatus;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DlqReplayServiceTest {
+
+    private static final String DLQ_TOPIC = "test-orders-dlq";
+    private static final String REPLAYED_TOPIC = "test-orders-dlq-replayed";
+    private static final TopicPartition DLQ_PARTITION_0 = new TopicPartition(DLQ_TOPIC, 0);
+    private static final TopicPartition DLQ_PARTITION_1 = new TopicPartition(DLQ_TOPIC, 1);
+    private static final TopicPartition REPLAYED_PARTITION = new TopicPartition(REPLAYED_TOPIC, 0);
+    private static final String SIMULATED = "Max retries exceeded: Simulated temporary failure";
+
+    // Records of every topic partition, shared by every consumer like the broker would
+    private final Map<TopicPartition, List<ConsumerRecord<String, Order>>> topicRecords = new HashMap<>();
+    private ConsumerFactory<String, Order> consumerFactory;
+    private KafkaTemplate<String, Order> kafkaTemplate;
+    private DlqReplayService replayService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        topicRecords.put(DLQ_PARTITION_0, new ArrayList<>());
+        topicRecords.put(DLQ_PARTITION_1, new ArrayList<>());
+        topicRecords.put(REPLAYED_PARTITION, new ArrayList<>());
+
+        consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(anyString(), anyString(), isNull(), any(Properties.class)))
+                .thenAnswer(invocation -> newConsumer());
+
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(eq(REPLAYED_TOPIC), anyString(), any(Order.class))).thenAnswer(invocation -> {
+            addRecord(REPLAYED_PARTITION, invocation.getArgument(1), invocation.getArgument(2), null, 0);
+            return CompletableFuture.completedFuture(null);
+        });
+        when(kafkaTemplate.partitionsFor(DLQ_TOPIC)).thenReturn(partitionInfos(DLQ_TOPIC, 2));
+
+        replayService = newReplayService();
+
+        addDlqRecord(DLQ_PARTITION_0, "Laptop", SIMULATED, 1000);
+        addDlqRecord(DLQ_PARTITION_0, "Mouse", SIMULATED, 2000);
+        addDlqRecord(DLQ_PARTITION_0, "Laptop", "Max retries exceeded: Downstream timeout", 3000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replayService.shutdown();
+    }
+
+    @Test
+    void testReplayAll() throws InterruptedException {
+        DlqReplayStatus status = runReplay(new DlqReplayRequest());
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(3, status.getScanned());
+        assertEquals(3, status.getReplayed());
+        verify(kafkaTemplate, times(3)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void testReplayFiltersByProductAndReason() throws InterruptedException {
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setProduct("laptop");
+        request.setReason("timeout");
+
+        DlqReplayStatus status = runReplay(request);
+
+        assertEquals(3, status.getScanned());
+        assertEquals(1, status.getMatched());
+        assertEquals(1, status.getReplayed());
+    }
+
+    @Test
+    void testReplayFromOffset() throws InterruptedException {
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setFromOffsets(Map.of(0, 2L));
+
+        DlqReplayStatus status = runReplay(request);
+
+        assertEquals(1, status.getScanned());
+        assertEquals(1, status.getReplayed());
+    }
+
+    @Test
+    void testFromOffsetsRejectsUnknownPartition() {
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setFromOffsets(Map.of(0, 0L, 5, 0L));
+
+        assertThrows(IllegalArgumentException.class, () -> replayService.startReplay(request));
+        assertTrue(replayService.getStatus().isEmpty());
+    }
+
+    @Test
+    void testFromTimestampSeeksEachPartition() throws InterruptedException {
+        addDlqRecord(DLQ_PARTITION_1, "Camera", SIMULATED, 1500);
+        addDlqRecord(DLQ_PARTITION_1, "Camera", SIMULATED, 3500);
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setFromTimestamp(2000L);
+
+        DlqReplayStatus status = runReplay(request);
+
+        // Partition 0 from offset 1, partition 1 from offset 1
+        assertEquals(3, status.getScanned());
+        assertEquals(3, status.getReplayed());
+    }
+
+    @Test
+    void testToTimestampEndsEachPartitionScan() throws InterruptedException {
+        addDlqRecord(DLQ_PARTITION_1, "Camera", SIMULATED, 1500);
+        addDlqRecord(DLQ_PARTITION_1, "Camera", SIMULATED, 3500);
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setToTimestamp(2000L);
+
+        DlqReplayStatus status = runReplay(request);
+
+        // Later records are never scanned, not just filtered out
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(3, status.getScanned());
+        assertEquals(3, status.getReplayed());
+    }
+
+    @Test
+    void testCancelStopsAfterThrottle() throws InterruptedException {
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setRatePerSecond(1);
+        replayService.startReplay(request);
+        // The first send goes out at once; the second waits about a second in throttle()
+        for (int i = 0; i < 100 && replayService.getStatus().get().getReplayed() == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        replayService.cancelReplay();
+        DlqReplayStatus status = awaitFinished();
+
+        assertEquals("CANCELLED", status.getState());
+        assertEquals(1, status.getReplayed());
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void testRepeatedReplaySkipsReplayedOffsets() throws InterruptedException {
+        runReplay(new DlqReplayRequest());
+        DlqReplayStatus second = runReplay(new DlqReplayRequest());
+
+        assertEquals(0, second.getReplayed());
+        assertEquals(3, second.getSkipped());
+        verify(kafkaTemplate, times(3)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void testReplayProgressSurvivesRestart() throws InterruptedException {
+        runReplay(new DlqReplayRequest());
+        replayService.shutdown();
+
+        replayService = newReplayService();
+        addDlqRecord(DLQ_PARTITION_0, "Camera", SIMULATED, 4000);
+        DlqReplayStatus afterRestart = runReplay(new DlqReplayRequest());
+
+        assertEquals(1, afterRestart.getReplayed());
+        assertEquals(3, afterRestart.getSkipped());
+        verify(kafkaTemplate, times(4)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void testFilteredReplayOfScatteredOffsetsIsIdempotent() throws InterruptedException {
+        // 400 matching offsets, none of them adjacent, so each is its own range
+        for (int i = 0; i < 800; i++) {
+            addDlqRecord(DLQ_PARTITION_1, i % 2 == 0 ? "Monitor" : "Cable", SIMULATED, 5000 + i);
+        }
+        DlqReplayRequest request = new DlqReplayRequest();
+        request.setProduct("Monitor");
+        request.setRatePerSecond(0);
+
+        DlqReplayStatus first = runReplay(request);
+        replayService.shutdown();
+        replayService = newReplayService();
+        DlqReplayStatus second = runReplay(request);
+
+        assertEquals(400, first.getReplayed());
+        assertEquals(0, second.getReplayed());
+        assertEquals(400, second.getSkipped());
+        verify(kafkaTemplate, times(400)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void testReplayedOffsetsMergeRanges() {
+        DlqReplayService.ReplayedOffsets offsets = new DlqReplayService.ReplayedOffsets();
+        offsets.add(1);
+        offsets.add(3);
+        offsets.add(2);
+
+        assertTrue(offsets.contains(1));
+        assertTrue(offsets.contains(2));
+        assertTrue(offsets.contains(3));
+        assertFalse(offsets.contains(0));
+        assertFalse(offsets.contains(4));
+    }
+
+    private DlqReplayStatus runReplay(DlqReplayRequest request) throws InterruptedException {
+        replayService.startReplay(request);
+        return awaitFinished();
+    }
+
+    private DlqReplayStatus awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<DlqReplayStatus> status = replayService.getStatus();
+            if (status.isPresent() && status.get().getFinishedAt() != 0) {
+                return status.get();
+            }
+            Thread.sleep(50);
+        }
+        fail("DLQ replay did not finish");
+        return null;
+    }
+
+    private void addDlqRecord(TopicPartition partition, String product, String reason, long timestamp) {
+        Order order = Order.newBuilder()
+                .setOrderId("dlq-" + partition.partition() + "-" + topicRecords.get(partition).size())
+                .setProduct(product)
+                .setPrice(100.0f)
+                .build();
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(OrderConsumer.DLQ_REASON_HEADER, reason.getBytes(StandardCharsets.UTF_8));
+        addRecord(partition, order.getOrderId().toString(), order, headers, timestamp);
+    }
+
+    private synchronized void addRecord(TopicPartition partition, String key, Order order,
+                                        RecordHeaders headers, long timestamp) {
+        List<ConsumerRecord<String, Order>> records = topicRecords.get(partition);
+        records.add(new ConsumerRecord<>(partition.topic(), partition.partition(), records.size(), timestamp,
+                TimestampType.CREATE_TIME, 0, 0, key, order,
+                headers != null ? headers : new RecordHeaders(), Optional.empty()));
+    }
+
+    private DlqReplayService newReplayService() {
+        return new DlqReplayService(consumerFactory, kafkaTemplate, "test-orders", DLQ_TOPIC, REPLAYED_TOPIC, 0, 4);
+    }
+
+    private static List<PartitionInfo> partitionInfos(String topic, int count) {
+        List<PartitionInfo> infos = new ArrayList<>();
+        for (int partition = 0; partition < count; partition++) {
+            infos.add(new PartitionInfo(topic, partition, null, null, null));
+        }
+        return infos;
+    }
+
+    private synchronized MockConsumer<String, Order> newConsumer() {
+        // A snapshot of the topics as they are now, served from the first poll on
+        Map<TopicPartition, List<ConsumerRecord<String, Order>>> snapshot = new HashMap<>();
+        topicRecords.forEach((tp, records) -> snapshot.put(tp, new ArrayList<>(records)));
+
+        MockConsumer<String, Order> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(
+                    Map<TopicPartition, Long> timestampsToSearch) {
+                Map<TopicPartition, OffsetAndTimestamp> found = new HashMap<>();
+                timestampsToSearch.forEach((tp, timestamp) -> snapshot.getOrDefault(tp, List.of()).stream()
+                        .filter(record -> record.timestamp() >= timestamp)
+                        .findFirst()
+                        .ifPresent(record -> found.put(tp, new OffsetAndTimestamp(record.offset(), record.timestamp()))));
+                return found;
+            }
+        };
+        consumer.updatePartitions(DLQ_TOPIC, partitionInfos(DLQ_TOPIC, 2));
+        consumer.updatePartitions(REPLAYED_TOPIC, partitionInfos(REPLAYED_TOPIC, 1));
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        snapshot.forEach((tp, records) -> {
+            beginningOffsets.put(tp, 0L);
+            endOffsets.put(tp, (long) records.size());
+        });
+        consumer.updateBeginningOffsets(beginningOffsets);
+        consumer.updateEndOffsets(endOffsets);
+        consumer.schedulePollTask(() -> snapshot.forEach((tp, records) -> {
+            if (consumer.assignment().contains(tp)) {
+                records.forEach(consumer::addRecord);
+            }
+        }));
+        return consumer;
+    }
+}
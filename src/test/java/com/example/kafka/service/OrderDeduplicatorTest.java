@@ -0,0 +1,111 @@
+package com.example.kafka.service;
+
+import org.apache.avro.util.Utf8;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDeduplicatorTest {
+
+    private static final long WINDOW_MS = 1000;
+
+    private OrderDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new OrderDeduplicator(WINDOW_MS, 100);
+    }
+
+    @Test
+    void testFirstSeenIsAccepted() {
+        assertTrue(deduplicator.markIfFirst(UUID.randomUUID().toString()));
+        assertTrue(deduplicator.markIfFirst(UUID.randomUUID().toString()));
+        assertEquals(0, deduplicator.getDuplicateCount().get());
+    }
+
+    @Test
+    void testRedeliveryIsRejected() {
+        String orderId = UUID.randomUUID().toString();
+
+        assertTrue(deduplicator.markIfFirst(orderId));
+        assertFalse(deduplicator.markIfFirst(orderId));
+        assertEquals(1, deduplicator.getDuplicateCount().get());
+    }
+
+    @Test
+    void testUtf8AndStringIdsMatch() {
+        String orderId = UUID.randomUUID().toString();
+
+        assertTrue(deduplicator.markIfFirst(orderId));
+        assertFalse(deduplicator.markIfFirst(new Utf8(orderId)));
+    }
+
+    @Test
+    void testNonUuidIds() {
+        assertTrue(deduplicator.markIfFirst("test-123"));
+        assertTrue(deduplicator.markIfFirst("test-124"));
+        assertFalse(deduplicator.markIfFirst("test-123"));
+    }
+
+    @Test
+    void testIdsExpireAfterWindow() {
+        String orderId = UUID.randomUUID().toString();
+        long start = System.currentTimeMillis();
+
+        assertTrue(deduplicator.markIfFirst(orderId, start));
+        assertFalse(deduplicator.markIfFirst(orderId, start + WINDOW_MS / 2));
+        assertTrue(deduplicator.markIfFirst(orderId, start + WINDOW_MS * 2));
+    }
+
+    @Test
+    void testMemoryStaysBoundedUnderLoad() {
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(deduplicator.markIfFirst(UUID.randomUUID().toString()));
+        }
+        String recent = UUID.randomUUID().toString();
+        assertTrue(deduplicator.markIfFirst(recent));
+        assertFalse(deduplicator.markIfFirst(recent));
+    }
+
+    @Test
+    void testForgottenIdIsAcceptedAgain() {
+        String orderId = UUID.randomUUID().toString();
+        for (int i = 0; i < 40; i++) {
+            deduplicator.markIfFirst(UUID.randomUUID().toString());
+        }
+
+        assertTrue(deduplicator.markIfFirst(orderId));
+        deduplicator.forget(orderId);
+        assertTrue(deduplicator.markIfFirst(orderId));
+        assertFalse(deduplicator.markIfFirst(orderId));
+    }
+
+    @Test
+    void testForgetKeepsOtherIds() {
+        String[] orderIds = new String[45];
+        for (int i = 0; i < orderIds.length; i++) {
+            orderIds[i] = UUID.randomUUID().toString();
+            assertTrue(deduplicator.markIfFirst(orderIds[i]));
+        }
+
+        for (int i = 0; i < orderIds.length; i += 2) {
+            deduplicator.forget(orderIds[i]);
+        }
+
+        for (int i = 1; i < orderIds.length; i += 2) {
+            assertFalse(deduplicator.markIfFirst(orderIds[i]));
+        }
+    }
+
+    @Test
+    void testFullGenerationCountsForcedRotation() {
+        for (int i = 0; i < 51; i++) {
+            deduplicator.markIfFirst(UUID.randomUUID().toString());
+        }
+
+        assertEquals(1, deduplicator.getForcedRotations().get());
+    }
+}
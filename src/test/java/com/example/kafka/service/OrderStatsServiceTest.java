@@ -2,11 +2,16 @@ package com.example.kafka.service;
 
 import com.example.kafka.avro.Order;
 import com.example.kafka.model.OrderStats;
+import com.example.kafka.model.PartitionOrderStats;
+import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 class OrderStatsServiceTest {
@@ -30,7 +35,7 @@ class OrderStatsServiceTest {
 
         statsService.recordOrder(order);
 
-        assertEquals(1, statsService.getTotalOrders().get());
+        assertEquals(1, statsService.getTotalOrders());
         assertEquals(500.0, statsService.getRunningAverage(), 0.01);
     }
 
@@ -51,14 +56,14 @@ class OrderStatsServiceTest {
         statsService.recordOrder(order1);
         statsService.recordOrder(order2);
 
-        assertEquals(2, statsService.getTotalOrders().get());
+        assertEquals(2, statsService.getTotalOrders());
         assertEquals(150.0, statsService.getRunningAverage(), 0.01);
     }
 
     @Test
     void testRecordRetry() {
         statsService.recordRetry();
-        assertEquals(1, statsService.getRetryCount().get());
+        assertEquals(1, statsService.getRetryCount());
     }
 
     @Test
@@ -71,7 +76,7 @@ class OrderStatsServiceTest {
 
         statsService.recordDlq(order, "Test failure");
 
-        assertEquals(1, statsService.getDlqCount().get());
+        assertEquals(1, statsService.getDlqCount());
         assertEquals(1, statsService.getDlqMessages().size());
     }
 
@@ -94,4 +99,117 @@ class OrderStatsServiceTest {
         assertEquals(1, stats.getRetryCount());
         assertEquals(1, stats.getDlqCount());
     }
+
+    @Test
+    void testPartitionStatsMergeOnRead() {
+        TopicPartition p0 = new TopicPartition("orders", 0);
+        TopicPartition p1 = new TopicPartition("orders", 1);
+        statsService.assignPartitions(List.of(p0, p1));
+
+        statsService.recordOrder(p0, order("test-p0", 100.0f));
+        statsService.recordOrder(p1, order("test-p1", 300.0f));
+        statsService.recordRetry(p1);
+
+        List<PartitionOrderStats> partitions = statsService.getPartitionStats();
+        assertEquals(2, partitions.size());
+        assertEquals(0, partitions.get(0).getPartition());
+        assertEquals(100.0, partitions.get(0).getRunningAverage(), 0.01);
+        assertEquals(1, partitions.get(1).getRetryCount());
+
+        OrderStats stats = statsService.getStats();
+        assertEquals(2, stats.getTotalOrders());
+        assertEquals(200.0, stats.getRunningAverage(), 0.01);
+        assertEquals(1, stats.getRetryCount());
+    }
+
+    @Test
+    void testPartitionTakenByAnotherMemberKeepsTotals() {
+        TopicPartition p0 = new TopicPartition("orders", 0);
+        statsService.assignPartitions(List.of(p0));
+        statsService.recordOrder(p0, order("test-revoke", 250.0f));
+
+        statsService.revokePartitions(List.of(p0));
+        statsService.assignPartitions(List.of());
+
+        assertTrue(statsService.getPartitionStats().isEmpty());
+        assertEquals(1, statsService.getTotalOrders());
+        assertEquals(250.0, statsService.getRunningAverage(), 0.01);
+    }
+
+    @Test
+    void testRevokeThenReassignKeepsShard() {
+        TopicPartition p0 = new TopicPartition("orders", 0);
+        statsService.assignPartitions(List.of(p0));
+        statsService.recordOrder(p0, order("test-before", 100.0f));
+
+        statsService.revokePartitions(List.of(p0));
+        assertEquals(1, statsService.getTotalOrders());
+        statsService.assignPartitions(List.of(p0));
+        statsService.recordOrder(p0, order("test-after", 300.0f));
+
+        List<PartitionOrderStats> partitions = statsService.getPartitionStats();
+        assertEquals(1, partitions.size());
+        assertEquals(2, partitions.get(0).getTotalOrders());
+        assertEquals(200.0, partitions.get(0).getRunningAverage(), 0.01);
+        assertEquals(2, statsService.getTotalOrders());
+    }
+
+    @Test
+    void testLostPartitionRetiredImmediately() {
+        TopicPartition p0 = new TopicPartition("orders", 0);
+        statsService.assignPartitions(List.of(p0));
+        statsService.recordOrder(p0, order("test-lost", 150.0f));
+
+        statsService.losePartitions(List.of(p0));
+
+        assertTrue(statsService.getPartitionStats().isEmpty());
+        assertEquals(1, statsService.getTotalOrders());
+    }
+
+    @Test
+    void testRetryAfterRevokeDoesNotCreateShard() {
+        TopicPartition p0 = new TopicPartition("orders", 0);
+        statsService.assignPartitions(List.of(p0));
+        statsService.revokePartitions(List.of(p0));
+        statsService.assignPartitions(List.of());
+
+        statsService.recordRetry(p0);
+        statsService.recordOrder(p0, order("test-late", 100.0f));
+
+        assertTrue(statsService.getPartitionStats().isEmpty());
+        assertEquals(1, statsService.getRetryCount());
+        assertEquals(1, statsService.getTotalOrders());
+    }
+
+    @Test
+    void testRetiredPartitionRetriesDoNotCarryOver() {
+        TopicPartition p0 = new TopicPartition("orders", 0);
+        statsService.assignPartitions(List.of(p0));
+        statsService.recordRetry(p0);
+        statsService.revokePartitions(List.of(p0));
+        statsService.assignPartitions(List.of());
+
+        statsService.assignPartitions(List.of(p0));
+
+        assertEquals(0, statsService.getPartitionStats().get(0).getRetryCount());
+        assertEquals(1, statsService.getRetryCount());
+    }
+
+    @Test
+    void testStatsBroadcastOnlyWhenChanged() {
+        statsService.recordOrder(order("test-tick", 100.0f));
+
+        statsService.broadcastStats();
+        statsService.broadcastStats();
+
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/stats"), any(OrderStats.class));
+    }
+
+    private Order order(String orderId, float price) {
+        return Order.newBuilder()
+                .setOrderId(orderId)
+                .setProduct("Camera")
+                .setPrice(price)
+                .build();
+    }
 }